@@ -0,0 +1,121 @@
+package com.jakarta2.udbl.jakartamission2.beans;
+
+import com.jakarta2.udbl.jakartamission2.business.UtilisateurEntrepriseBean;
+import com.jakarta2.udbl.jakartamission2.business.UtilisateurResume;
+import jakarta.faces.view.ViewScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import java.io.Serializable;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Liste paginée des utilisateurs pour l'administration. Seule la page
+ * affichée et les curseurs des pages précédentes sont gardés en mémoire.
+ *
+ * @author joelm
+ */
+@Named(value = "administrationUtilisateurs")
+@ViewScoped
+public class AdministrationUtilisateursBean implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int TAILLE_PAGE = 25;
+
+    @Inject
+    private UtilisateurEntrepriseBean utilisateurService;
+
+    private String critere = "username";
+    private String prefixe;
+    private String curseur;
+    private final Deque<String> curseursPrecedents = new ArrayDeque<>();
+    private List<UtilisateurResume> utilisateurs;
+    private boolean pageSuivante;
+
+    private void chargerPage() {
+        List<UtilisateurResume> page;
+        if (prefixe == null || prefixe.isEmpty()) {
+            page = utilisateurService.listerUtilisateursParPage(curseur != null ? Long.valueOf(curseur) : null, TAILLE_PAGE + 1);
+        } else if ("email".equals(critere)) {
+            page = utilisateurService.rechercherParEmail(prefixe, curseur, TAILLE_PAGE + 1);
+        } else {
+            page = utilisateurService.rechercherParUsername(prefixe, curseur, TAILLE_PAGE + 1);
+        }
+        // l'élément en trop indique seulement qu'une page suivante existe
+        pageSuivante = page.size() > TAILLE_PAGE;
+        utilisateurs = pageSuivante ? new ArrayList<>(page.subList(0, TAILLE_PAGE)) : page;
+    }
+
+    private String cle(UtilisateurResume utilisateur) {
+        if (prefixe == null || prefixe.isEmpty()) {
+            return String.valueOf(utilisateur.getId());
+        }
+        return "email".equals(critere) ? utilisateur.getEmail() : utilisateur.getUsername();
+    }
+
+    public void rechercher() {
+        curseur = null;
+        curseursPrecedents.clear();
+        chargerPage();
+    }
+
+    public void suivante() {
+        if (pageSuivante && !utilisateurs.isEmpty()) {
+            curseursPrecedents.push(curseur != null ? curseur : "");
+            curseur = cle(utilisateurs.get(utilisateurs.size() - 1));
+            chargerPage();
+        }
+    }
+
+    public void precedente() {
+        if (!curseursPrecedents.isEmpty()) {
+            String precedent = curseursPrecedents.pop();
+            curseur = precedent.isEmpty() ? null : precedent;
+            chargerPage();
+        }
+    }
+
+    public List<UtilisateurResume> getUtilisateurs() {
+        if (utilisateurs == null) {
+            chargerPage();
+        }
+        return utilisateurs;
+    }
+
+    public boolean isPageSuivante() {
+        return pageSuivante;
+    }
+
+    public boolean isPagePrecedente() {
+        return !curseursPrecedents.isEmpty();
+    }
+
+    public String getCritere() {
+        return critere;
+    }
+
+    public void setCritere(String critere) {
+        this.critere = critere;
+    }
+
+    public String getPrefixe() {
+        return prefixe;
+    }
+
+    public void setPrefixe(String prefixe) {
+        this.prefixe = prefixe;
+    }
+
+    /** Paramètres de filtre à reprendre dans les liens d'export. */
+    public String getParametresExport() {
+        if (prefixe == null || prefixe.isEmpty()) {
+            return "";
+        }
+        return "?" + ("email".equals(critere) ? "email" : "username") + "="
+                + URLEncoder.encode(prefixe, StandardCharsets.UTF_8);
+    }
+}
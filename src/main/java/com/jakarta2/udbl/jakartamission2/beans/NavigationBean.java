@@ -5,16 +5,22 @@
 package com.jakarta2.udbl.jakartamission2.beans;
 
 import com.jakarta2.udbl.jakartamission2.business.LieuEntrepriseBean;
+import com.jakarta2.udbl.jakartamission2.business.PhotoInvalideException;
+import com.jakarta2.udbl.jakartamission2.business.PhotoLieuEntrepriseBean;
 import com.jakarta2.udbl.jakartamission2.entities.Lieu;
 import jakarta.annotation.PostConstruct;
 import jakarta.ejb.EJB;
 import jakarta.enterprise.context.SessionScoped;
+import jakarta.faces.application.FacesMessage;
 import jakarta.faces.context.FacesContext;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
+import jakarta.servlet.http.Part;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -28,6 +34,9 @@ public class NavigationBean implements Serializable {
     
     @Inject
     private LieuEntrepriseBean lieuService;
+
+    @Inject
+    private PhotoLieuEntrepriseBean photoService;
     
     private String lieuNom;
     private String lieuDescription;
@@ -37,6 +46,8 @@ public class NavigationBean implements Serializable {
     private List<Lieu> lieux;
     private boolean isEditing = false;
     private Lieu lieuEnEdition;
+    private Map<Integer, Long> premieresPhotos;
+    private transient Part photo;
 
     private void loadLieux() {
         if (lieuService != null) {
@@ -49,6 +60,21 @@ public class NavigationBean implements Serializable {
         } else {
             lieux = new java.util.ArrayList<>();
         }
+        loadPremieresPhotos();
+    }
+
+    // Chargées à part : un souci sur les photos ne doit pas masquer les lieux
+    private void loadPremieresPhotos() {
+        if (photoService != null) {
+            try {
+                premieresPhotos = photoService.premierePhotoParLieu();
+            } catch (Exception e) {
+                e.printStackTrace();
+                premieresPhotos = new java.util.HashMap<>();
+            }
+        } else {
+            premieresPhotos = new java.util.HashMap<>();
+        }
     }
 
     public void voirApropos(){
@@ -60,6 +86,15 @@ public class NavigationBean implements Serializable {
         }
     }
     
+    public void voirUtilisateurs() {
+        try {
+            FacesContext.getCurrentInstance().getExternalContext()
+                    .redirect("utilisateurs.xhtml");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     public void ajouterLieu() {
         try {
             FacesContext.getCurrentInstance().getExternalContext()
@@ -139,6 +174,26 @@ public class NavigationBean implements Serializable {
         }
     }
 
+    public void ajouterPhotoAction() {
+        if (lieuEnEdition == null || photo == null || photoService == null) {
+            return;
+        }
+        FacesContext context = FacesContext.getCurrentInstance();
+        // Le conteneur garde la pièce jointe sur disque, on la recopie par flux
+        try (InputStream contenu = photo.getInputStream()) {
+            photoService.ajouterPhoto(lieuEnEdition.getId(), photo.getSubmittedFileName(), photo.getContentType(), contenu);
+            context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_INFO, "Photo ajoutée avec succès", null));
+            lieux = null;
+        } catch (PhotoInvalideException e) {
+            context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, e.getMessage(), null));
+        } catch (Exception e) {
+            e.printStackTrace();
+            context.addMessage(null, new FacesMessage(FacesMessage.SEVERITY_ERROR, "Impossible d'enregistrer la photo", null));
+        } finally {
+            photo = null;
+        }
+    }
+
     public void supprimerLieu(int id) {
         if (lieuService != null) {
             try {
@@ -194,6 +249,21 @@ public class NavigationBean implements Serializable {
         return lieux;
     }
 
+    public Map<Integer, Long> getPremieresPhotos() {
+        if (premieresPhotos == null) {
+            loadPremieresPhotos();
+        }
+        return premieresPhotos;
+    }
+
+    public Part getPhoto() {
+        return photo;
+    }
+
+    public void setPhoto(Part photo) {
+        this.photo = photo;
+    }
+
     public boolean isEditing() {
         return isEditing;
     }
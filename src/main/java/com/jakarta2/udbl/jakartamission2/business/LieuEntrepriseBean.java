@@ -7,6 +7,7 @@ package com.jakarta2.udbl.jakartamission2.business;
 import com.jakarta2.udbl.jakartamission2.entities.Lieu;
 import jakarta.ejb.Stateless;
 import jakarta.ejb.LocalBean;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
@@ -23,6 +24,9 @@ public class LieuEntrepriseBean {
     @PersistenceContext
     private EntityManager em;
 
+    @Inject
+    private PhotoLieuEntrepriseBean photoLieuEntrepriseBean;
+
     @Transactional
     public void ajouterLieuEntreprise(String nom, String description, double latitude, double longitude) {
         Lieu lieu = new Lieu(nom, description, latitude, longitude);
@@ -37,6 +41,7 @@ public class LieuEntrepriseBean {
     public void supprimerLieu(int id) {
         Lieu lieu = em.find(Lieu.class, id);
         if (lieu != null) {
+            photoLieuEntrepriseBean.supprimerPhotosDuLieu(id);
             em.remove(lieu);
         }
     }
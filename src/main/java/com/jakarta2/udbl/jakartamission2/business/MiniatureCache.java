@@ -0,0 +1,226 @@
+package com.jakarta2.udbl.jakartamission2.business;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Cache disque des miniatures de photos. Une miniature est générée à la
+ * première demande puis conservée ; au-delà de la taille maximale du cache,
+ * les miniatures les moins récemment utilisées sont supprimées.
+ *
+ * @author leona
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class MiniatureCache {
+
+    public static final int LARGEUR_MIN = 32;
+    public static final int LARGEUR_MAX = 640;
+
+    // nom de fichier -> taille en octets, dans l'ordre d'accès (LRU)
+    private final Map<String, Long> index = new LinkedHashMap<>(64, 0.75f, true);
+    // photo -> nombre de miniatures en cours de génération hors verrou
+    private final Map<Long, Integer> generationsEnCours = new HashMap<>();
+    // photos invalidées pendant qu'une de leurs miniatures était générée
+    private final Set<Long> invalideesPendantGeneration = new HashSet<>();
+    private long tailleTotale;
+    private Path repertoire;
+
+    @PostConstruct
+    void initialiser() {
+        repertoire = StockagePhotos.repertoireMiniatures();
+        try {
+            Files.createDirectories(repertoire);
+            try (Stream<Path> fichiers = Files.list(repertoire)) {
+                fichiers.sorted(Comparator.comparing(MiniatureCache::dateModification))
+                        .forEach(this::reprendre);
+            }
+            synchronized (index) {
+                evincer(null);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Retourne le fichier de la miniature de la photo à la largeur demandée,
+     * en la générant si elle n'est pas encore dans le cache.
+     */
+    public Path miniature(long photoId, Path source, int largeur) throws IOException {
+        int largeurBornee = Math.max(LARGEUR_MIN, Math.min(LARGEUR_MAX, largeur));
+        String nom = photoId + "-" + largeurBornee + ".jpg";
+        Path fichier = repertoire.resolve(nom);
+        synchronized (index) {
+            if (index.get(nom) != null && Files.exists(fichier)) {
+                return fichier;
+            }
+            generationsEnCours.merge(photoId, 1, Integer::sum);
+        }
+        // la génération se fait hors verrou pour ne pas bloquer les autres lectures
+        boolean generee = false;
+        long taille = 0;
+        Path temporaire = null;
+        try {
+            temporaire = Files.createTempFile(repertoire, "miniature-", ".tmp");
+            generer(source, temporaire, largeurBornee);
+            Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            taille = Files.size(fichier);
+            generee = true;
+        } finally {
+            synchronized (index) {
+                boolean invalidee = invalideesPendantGeneration.contains(photoId);
+                if (generationsEnCours.merge(photoId, -1, Integer::sum) == 0) {
+                    generationsEnCours.remove(photoId);
+                    invalideesPendantGeneration.remove(photoId);
+                }
+                if (invalidee) {
+                    // la photo a été supprimée pendant la génération : on n'indexe rien
+                    supprimerFichier(nom);
+                    generee = false;
+                } else if (generee) {
+                    Long precedente = index.put(nom, taille);
+                    tailleTotale += taille - (precedente != null ? precedente : 0L);
+                    evincer(nom);
+                }
+            }
+            if (temporaire != null) {
+                Files.deleteIfExists(temporaire);
+            }
+        }
+        if (!generee) {
+            throw new NoSuchFileException(fichier.toString(), null, "photo supprimée pendant la génération");
+        }
+        return fichier;
+    }
+
+    /** Supprime toutes les miniatures d'une photo. */
+    public void invalider(long photoId) {
+        String prefixe = photoId + "-";
+        synchronized (index) {
+            if (generationsEnCours.containsKey(photoId)) {
+                invalideesPendantGeneration.add(photoId);
+            }
+            Iterator<Map.Entry<String, Long>> entrees = index.entrySet().iterator();
+            while (entrees.hasNext()) {
+                Map.Entry<String, Long> entree = entrees.next();
+                if (entree.getKey().startsWith(prefixe)) {
+                    supprimerFichier(entree.getKey());
+                    tailleTotale -= entree.getValue();
+                    entrees.remove();
+                }
+            }
+        }
+    }
+
+    private void reprendre(Path fichier) {
+        String nom = fichier.getFileName().toString();
+        try {
+            if (!nom.endsWith(".jpg")) {
+                // miniature interrompue lors d'un arrêt précédent
+                Files.deleteIfExists(fichier);
+                return;
+            }
+            long taille = Files.size(fichier);
+            synchronized (index) {
+                index.put(nom, taille);
+                tailleTotale += taille;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void evincer(String aConserver) {
+        long maximum = StockagePhotos.tailleMaximaleCache();
+        Iterator<Map.Entry<String, Long>> entrees = index.entrySet().iterator();
+        while (tailleTotale > maximum && entrees.hasNext()) {
+            Map.Entry<String, Long> entree = entrees.next();
+            if (entree.getKey().equals(aConserver)) {
+                continue;
+            }
+            supprimerFichier(entree.getKey());
+            tailleTotale -= entree.getValue();
+            entrees.remove();
+        }
+    }
+
+    private void supprimerFichier(String nom) {
+        try {
+            Files.deleteIfExists(repertoire.resolve(nom));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static FileTime dateModification(Path fichier) {
+        try {
+            return Files.getLastModifiedTime(fichier);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void generer(Path source, Path cible, int largeur) throws IOException {
+        BufferedImage image;
+        try (ImageInputStream entree = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> lecteurs = entree != null ? ImageIO.getImageReaders(entree) : null;
+            if (lecteurs == null || !lecteurs.hasNext()) {
+                throw new IOException("Format d'image non reconnu : " + source.getFileName());
+            }
+            ImageReader lecteur = lecteurs.next();
+            try {
+                lecteur.setInput(entree, true, true);
+                // sous-échantillonnage à la lecture : l'image pleine taille n'est jamais décodée
+                int pas = Math.max(1, lecteur.getWidth(0) / (largeur * 2));
+                ImageReadParam parametres = lecteur.getDefaultReadParam();
+                parametres.setSourceSubsampling(pas, pas, 0, 0);
+                image = lecteur.read(0, parametres);
+            } finally {
+                lecteur.dispose();
+            }
+        }
+        int largeurCible = Math.min(largeur, image.getWidth());
+        int hauteurCible = Math.max(1, (int) Math.round((double) image.getHeight() * largeurCible / image.getWidth()));
+        BufferedImage miniature = new BufferedImage(largeurCible, hauteurCible, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphique = miniature.createGraphics();
+        try {
+            graphique.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphique.setColor(Color.WHITE);
+            graphique.fillRect(0, 0, largeurCible, hauteurCible);
+            graphique.drawImage(image, 0, 0, largeurCible, hauteurCible, null);
+        } finally {
+            graphique.dispose();
+        }
+        if (!ImageIO.write(miniature, "jpg", cible.toFile())) {
+            throw new IOException("Aucun encodeur JPEG disponible");
+        }
+    }
+}
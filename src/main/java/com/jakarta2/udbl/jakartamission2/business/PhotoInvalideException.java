@@ -0,0 +1,16 @@
+package com.jakarta2.udbl.jakartamission2.business;
+
+/**
+ * Levée lorsqu'une photo envoyée est refusée (lieu inconnu, type non pris en
+ * charge ou taille dépassée).
+ *
+ * @author leona
+ */
+public class PhotoInvalideException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public PhotoInvalideException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,269 @@
+package com.jakarta2.udbl.jakartamission2.business;
+
+import com.jakarta2.udbl.jakartamission2.entities.Lieu;
+import com.jakarta2.udbl.jakartamission2.entities.PhotoLieu;
+import jakarta.annotation.Resource;
+import jakarta.ejb.LocalBean;
+import jakarta.ejb.SessionContext;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Stockage des photos des lieux : le contenu est écrit sur le disque local
+ * au fil de l'envoi, seules les métadonnées passent par la base.
+ *
+ * @author leona
+ */
+@Stateless
+@LocalBean
+public class PhotoLieuEntrepriseBean {
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/gif", ".gif");
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Inject
+    private MiniatureCache miniatureCache;
+
+    @Resource
+    private SessionContext contexte;
+
+    @Resource
+    private TransactionSynchronizationRegistry registreTransactions;
+
+    /**
+     * Copie le contenu sur le disque hors transaction, pour ne pas garder de
+     * connexion à la base pendant l'envoi, puis enregistre les métadonnées
+     * dans une transaction courte.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public PhotoLieu ajouterPhoto(int lieuId, String nomFichier, String typeContenu, InputStream contenu)
+            throws PhotoInvalideException, IOException {
+        String type = typeContenu != null ? typeContenu.toLowerCase() : null;
+        String extension = type != null ? EXTENSIONS.get(type) : null;
+        if (extension == null) {
+            throw new PhotoInvalideException("Type de fichier non pris en charge : " + typeContenu);
+        }
+        Path repertoire = StockagePhotos.repertoirePhotos();
+        Files.createDirectories(repertoire);
+
+        // Copie par blocs vers un fichier temporaire : la photo n'est jamais entièrement en mémoire
+        Path temporaire = Files.createTempFile(repertoire, StockagePhotos.PREFIXE_ENVOI, StockagePhotos.SUFFIXE_ENVOI);
+        MessageDigest sha256 = sha256();
+        long taille = 0;
+        long tailleMax = StockagePhotos.tailleMaximale();
+        try {
+            try (OutputStream sortie = Files.newOutputStream(temporaire)) {
+                byte[] tampon = new byte[8192];
+                int lus;
+                while ((lus = contenu.read(tampon)) != -1) {
+                    taille += lus;
+                    if (taille > tailleMax) {
+                        throw new PhotoInvalideException("La photo dépasse la taille maximale de " + tailleMax + " octets");
+                    }
+                    sha256.update(tampon, 0, lus);
+                    sortie.write(tampon, 0, lus);
+                }
+            }
+            if (taille == 0) {
+                throw new PhotoInvalideException("La photo envoyée est vide");
+            }
+            if (!estImageDuType(temporaire, type)) {
+                throw new PhotoInvalideException("Le contenu envoyé n'est pas une image " + type + " valide");
+            }
+        } catch (PhotoInvalideException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaire);
+            throw e;
+        }
+
+        String cle = UUID.randomUUID().toString().replace("-", "") + extension;
+        Path destination = repertoire.resolve(cle);
+        Files.move(temporaire, destination, StandardCopyOption.ATOMIC_MOVE);
+        PhotoLieu photo = new PhotoLieu(lieuId, nomFichierSur(nomFichier, cle), type,
+                taille, cle, hexadecimal(sha256.digest()));
+        try {
+            // appel via le conteneur pour que l'attribut de transaction s'applique
+            return contexte.getBusinessObject(PhotoLieuEntrepriseBean.class).enregistrerPhoto(photo);
+        } catch (PhotoInvalideException | RuntimeException e) {
+            Files.deleteIfExists(destination);
+            throw e;
+        }
+    }
+
+    /**
+     * Enregistre les métadonnées d'une photo déjà stockée. Si la transaction
+     * est annulée, le fichier correspondant est supprimé.
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRED)
+    public PhotoLieu enregistrerPhoto(PhotoLieu photo) throws PhotoInvalideException {
+        if (em.find(Lieu.class, photo.getLieuId()) == null) {
+            throw new PhotoInvalideException("Lieu introuvable : " + photo.getLieuId());
+        }
+        supprimerFichierApresTransaction(false, fichierPhoto(photo));
+        em.persist(photo);
+        return photo;
+    }
+
+    public List<PhotoLieu> listerPhotosDuLieu(int lieuId) {
+        return em.createQuery("SELECT p FROM PhotoLieu p WHERE p.lieuId = :lieuId ORDER BY p.id", PhotoLieu.class)
+                .setParameter("lieuId", lieuId)
+                .getResultList();
+    }
+
+    /**
+     * Identifiant de la première photo de chaque lieu, en une seule requête,
+     * pour afficher les miniatures d'une liste de lieux.
+     */
+    public Map<Integer, Long> premierePhotoParLieu() {
+        Map<Integer, Long> premieres = new HashMap<>();
+        List<Object[]> lignes = em.createQuery(
+                "SELECT p.lieuId, MIN(p.id) FROM PhotoLieu p GROUP BY p.lieuId", Object[].class)
+                .getResultList();
+        for (Object[] ligne : lignes) {
+            premieres.put((Integer) ligne[0], (Long) ligne[1]);
+        }
+        return premieres;
+    }
+
+    public PhotoLieu trouverPhotoParId(Long id) {
+        return em.find(PhotoLieu.class, id);
+    }
+
+    public Path fichierPhoto(PhotoLieu photo) {
+        return StockagePhotos.repertoirePhotos().resolve(photo.getCleStockage());
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRED)
+    public void supprimerPhoto(Long id) {
+        PhotoLieu photo = em.find(PhotoLieu.class, id);
+        if (photo != null) {
+            supprimer(photo);
+        }
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRED)
+    public void supprimerPhotosDuLieu(int lieuId) {
+        for (PhotoLieu photo : listerPhotosDuLieu(lieuId)) {
+            supprimer(photo);
+        }
+        // les lignes partent avant le lieu lui-même (clé étrangère photo_lieu.lieu_id)
+        em.flush();
+    }
+
+    private void supprimer(PhotoLieu photo) {
+        em.remove(photo);
+        // les miniatures se régénèrent : on peut les retirer dès maintenant
+        miniatureCache.invalider(photo.getId());
+        // l'original ne disparaît qu'une fois la suppression validée en base
+        supprimerFichierApresTransaction(true, fichierPhoto(photo));
+    }
+
+    /**
+     * Supprime {@code fichier} à la fin de la transaction courante, seulement
+     * si elle est validée ({@code siValidee}) ou seulement si elle est annulée.
+     * Le rappel n'accède à aucun composant, conformément au contrat JTA.
+     */
+    private void supprimerFichierApresTransaction(boolean siValidee, Path fichier) {
+        registreTransactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int statut) {
+                if (statut == (siValidee ? Status.STATUS_COMMITTED : Status.STATUS_ROLLEDBACK)) {
+                    supprimerFichier(fichier);
+                }
+            }
+        });
+    }
+
+    private static void supprimerFichier(Path fichier) {
+        try {
+            Files.deleteIfExists(fichier);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Vérifie que le fichier est lisible par un décodeur ImageIO du type
+     * annoncé, en ne lisant que son en-tête.
+     */
+    private static boolean estImageDuType(Path fichier, String type) throws IOException {
+        try (ImageInputStream entree = ImageIO.createImageInputStream(fichier.toFile())) {
+            if (entree == null) {
+                return false;
+            }
+            Iterator<ImageReader> lecteurs = ImageIO.getImageReaders(entree);
+            while (lecteurs.hasNext()) {
+                ImageReader lecteur = lecteurs.next();
+                try {
+                    String[] types = lecteur.getOriginatingProvider().getMIMETypes();
+                    if (types != null && Arrays.asList(types).contains(type)) {
+                        lecteur.setInput(entree, true, true);
+                        return lecteur.getWidth(0) > 0 && lecteur.getHeight(0) > 0;
+                    }
+                } catch (IOException e) {
+                    return false;
+                } finally {
+                    lecteur.dispose();
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String nomFichierSur(String nomFichier, String cle) {
+        if (nomFichier == null || nomFichier.isBlank()) {
+            return cle;
+        }
+        // ne garder que le dernier segment, certains navigateurs envoient le chemin complet
+        String nom = nomFichier.substring(Math.max(nomFichier.lastIndexOf('/'), nomFichier.lastIndexOf('\\')) + 1);
+        return nom.length() > 255 ? nom.substring(nom.length() - 255) : nom;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hexadecimal(byte[] octets) {
+        StringBuilder resultat = new StringBuilder(octets.length * 2);
+        for (byte octet : octets) {
+            resultat.append(String.format("%02x", octet));
+        }
+        return resultat.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package com.jakarta2.udbl.jakartamission2.business;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Emplacements et limites du stockage des photos sur le disque local.
+ * Chaque valeur peut être surchargée par une propriété système du serveur.
+ *
+ * @author leona
+ */
+public final class StockagePhotos {
+
+    public static final String PROPRIETE_REPERTOIRE = "jakartamission.photos.dir";
+    public static final String PROPRIETE_TAILLE_MAX = "jakartamission.photos.tailleMax";
+    public static final String PROPRIETE_CACHE_MAX = "jakartamission.miniatures.cacheMax";
+
+    /** Préfixe et suffixe des fichiers temporaires d'un envoi en cours. */
+    public static final String PREFIXE_ENVOI = "envoi-";
+    public static final String SUFFIXE_ENVOI = ".part";
+
+    private static final long TAILLE_MAX_DEFAUT = 10L * 1024 * 1024;
+    private static final long CACHE_MAX_DEFAUT = 64L * 1024 * 1024;
+
+    private StockagePhotos() {
+    }
+
+    public static Path repertoirePhotos() {
+        String configure = System.getProperty(PROPRIETE_REPERTOIRE);
+        if (configure != null && !configure.isEmpty()) {
+            return Paths.get(configure);
+        }
+        return Paths.get(System.getProperty("user.home"), "jakartamission", "photos");
+    }
+
+    public static Path repertoireMiniatures() {
+        return repertoirePhotos().resolve("miniatures");
+    }
+
+    /** Supprime les envois de photos interrompus par un arrêt du serveur. */
+    public static void nettoyerEnvoisInterrompus() throws IOException {
+        Path photos = repertoirePhotos();
+        if (!Files.isDirectory(photos)) {
+            return;
+        }
+        try (DirectoryStream<Path> envois = Files.newDirectoryStream(photos, PREFIXE_ENVOI + "*" + SUFFIXE_ENVOI)) {
+            for (Path envoi : envois) {
+                Files.deleteIfExists(envoi);
+            }
+        }
+    }
+
+    /** Taille maximale acceptée pour une photo envoyée, en octets. */
+    public static long tailleMaximale() {
+        return Long.getLong(PROPRIETE_TAILLE_MAX, TAILLE_MAX_DEFAUT);
+    }
+
+    /** Espace disque maximal occupé par le cache de miniatures, en octets. */
+    public static long tailleMaximaleCache() {
+        return Long.getLong(PROPRIETE_CACHE_MAX, CACHE_MAX_DEFAUT);
+    }
+}
@@ -0,0 +1,29 @@
+package com.jakarta2.udbl.jakartamission2.business;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.io.IOException;
+
+/**
+ * Nettoie le stockage des photos au démarrage de l'application, avant que
+ * le moindre envoi ne puisse commencer.
+ *
+ * @author leona
+ */
+@Singleton
+@Startup
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class StockagePhotosDemarrage {
+
+    @PostConstruct
+    void demarrer() {
+        try {
+            StockagePhotos.nettoyerEnvoisInterrompus();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -5,10 +5,12 @@
 package com.jakarta2.udbl.jakartamission2.business;
 
 import com.jakarta2.udbl.jakartamission2.entities.Utilisateur;
+import jakarta.annotation.security.RolesAllowed;
 import jakarta.ejb.Stateless;
 import jakarta.ejb.LocalBean;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
 import java.util.List;
 import org.mindrot.jbcrypt.BCrypt;
@@ -36,6 +38,11 @@ public class UtilisateurEntrepriseBean {
         Utilisateur utilisateur = new Utilisateur(username, email, hashedPassword, description);
         em.persist(utilisateur);
     }
+    /**
+     * Charge toutes les entités, mots de passe compris.
+     * @deprecated préférer {@link #listerUtilisateursParPage(Long, int)} et les recherches par préfixe
+     */
+    @Deprecated
     public List<Utilisateur> listerTousLesUtilisateurs() {
         return em.createQuery("SELECT u FROM Utilisateur u", Utilisateur.class).getResultList();
     }
@@ -67,4 +74,62 @@ public class UtilisateurEntrepriseBean {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Page d'utilisateurs triée par identifiant, à partir de l'identifiant
+     * suivant {@code apresId} (null pour la première page).
+     */
+    @RolesAllowed("admin")
+    public List<UtilisateurResume> listerUtilisateursParPage(Long apresId, int taille) {
+        TypedQuery<UtilisateurResume> requete = em.createQuery(
+                "SELECT NEW " + UtilisateurResume.class.getName() + "(u.id, u.username, u.email) FROM Utilisateur u"
+                + (apresId != null ? " WHERE u.id > :apres" : "")
+                + " ORDER BY u.id", UtilisateurResume.class);
+        if (apresId != null) {
+            requete.setParameter("apres", apresId);
+        }
+        return requete.setMaxResults(taille).getResultList();
+    }
+
+    /**
+     * Page d'utilisateurs dont le nom commence par {@code prefixe}, triée par
+     * nom ; le filtre et la pagination s'appuient sur l'index unique de la colonne.
+     */
+    @RolesAllowed("admin")
+    public List<UtilisateurResume> rechercherParUsername(String prefixe, String apresUsername, int taille) {
+        return rechercherParPrefixe("username", prefixe, apresUsername, taille);
+    }
+
+    /**
+     * Page d'utilisateurs dont l'email commence par {@code prefixe}, triée par email.
+     */
+    @RolesAllowed("admin")
+    public List<UtilisateurResume> rechercherParEmail(String prefixe, String apresEmail, int taille) {
+        return rechercherParPrefixe("email", prefixe, apresEmail, taille);
+    }
+
+    private List<UtilisateurResume> rechercherParPrefixe(String colonne, String prefixe, String apres, int taille) {
+        boolean avecPrefixe = prefixe != null && !prefixe.isEmpty();
+        StringBuilder jpql = new StringBuilder("SELECT NEW ").append(UtilisateurResume.class.getName())
+                .append("(u.id, u.username, u.email) FROM Utilisateur u WHERE 1 = 1");
+        if (avecPrefixe) {
+            jpql.append(" AND u.").append(colonne).append(" LIKE :prefixe ESCAPE '!'");
+        }
+        if (apres != null) {
+            jpql.append(" AND u.").append(colonne).append(" > :apres");
+        }
+        jpql.append(" ORDER BY u.").append(colonne);
+        TypedQuery<UtilisateurResume> requete = em.createQuery(jpql.toString(), UtilisateurResume.class);
+        if (avecPrefixe) {
+            requete.setParameter("prefixe", echapperLike(prefixe) + "%");
+        }
+        if (apres != null) {
+            requete.setParameter("apres", apres);
+        }
+        return requete.setMaxResults(taille).getResultList();
+    }
+
+    private static String echapperLike(String valeur) {
+        return valeur.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,36 @@
+package com.jakarta2.udbl.jakartamission2.business;
+
+import java.io.Serializable;
+
+/**
+ * Vue allégée d'un utilisateur pour l'administration : ni mot de passe ni
+ * description, construite directement par la requête JPQL.
+ *
+ * @author joelm
+ */
+public class UtilisateurResume implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String username;
+    private final String email;
+
+    public UtilisateurResume(Long id, String username, String email) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
@@ -0,0 +1,100 @@
+package com.jakarta2.udbl.jakartamission2.entities;
+
+import jakarta.json.bind.annotation.JsonbTransient;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Métadonnées d'une photo rattachée à un {@link Lieu}. Le contenu binaire
+ * reste sur le disque, seule la clé de stockage est conservée ici.
+ * Le schéma n'étant pas généré, la table est créée par
+ * {@code META-INF/sql/photo_lieu.sql}.
+ *
+ * @author leona
+ */
+@Entity
+@Table(name = "photo_lieu", indexes = @Index(name = "idx_photo_lieu_lieu", columnList = "lieu_id"))
+public class PhotoLieu implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "lieu_id", nullable = false)
+    private int lieuId;
+
+    @Column(nullable = false, length = 255)
+    private String nomFichier;
+
+    @Column(nullable = false, length = 100)
+    private String typeContenu;
+
+    @Column(nullable = false)
+    private long taille;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String cleStockage;
+
+    @Column(nullable = false, length = 64)
+    private String empreinte;
+
+    @Column(nullable = false)
+    private LocalDateTime dateAjout;
+
+    public PhotoLieu() {
+    }
+
+    public PhotoLieu(int lieuId, String nomFichier, String typeContenu, long taille, String cleStockage, String empreinte) {
+        this.lieuId = lieuId;
+        this.nomFichier = nomFichier;
+        this.typeContenu = typeContenu;
+        this.taille = taille;
+        this.cleStockage = cleStockage;
+        this.empreinte = empreinte;
+        this.dateAjout = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+
+    public int getLieuId() { return lieuId; }
+
+    public String getNomFichier() { return nomFichier; }
+
+    public String getTypeContenu() { return typeContenu; }
+
+    public long getTaille() { return taille; }
+
+    @JsonbTransient
+    public String getCleStockage() { return cleStockage; }
+
+    /** Empreinte SHA-256 (hexadécimal) du contenu, utilisée comme ETag. */
+    public String getEmpreinte() { return empreinte; }
+
+    public LocalDateTime getDateAjout() { return dateAjout; }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof PhotoLieu)) {
+            return false;
+        }
+        PhotoLieu other = (PhotoLieu) object;
+        return !((this.id == null && other.id != null) || (this.id != null && !this.id.equals(other.id)));
+    }
+
+    @Override
+    public String toString() {
+        return "com.jakarta2.udbl.jakartamission2.entities.PhotoLieu[ id=" + id + " ]";
+    }
+}
@@ -0,0 +1,269 @@
+package com.jakarta2.udbl.jakartamission2.resources;
+
+import com.jakarta2.udbl.jakartamission2.business.LieuEntrepriseBean;
+import com.jakarta2.udbl.jakartamission2.business.MiniatureCache;
+import com.jakarta2.udbl.jakartamission2.business.PhotoInvalideException;
+import com.jakarta2.udbl.jakartamission2.business.PhotoLieuEntrepriseBean;
+import com.jakarta2.udbl.jakartamission2.entities.PhotoLieu;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Envoi et téléchargement des photos des lieux. Les téléchargements
+ * prennent en charge les en-têtes Range et ETag ; l'envoi est réservé au
+ * rôle admin (contrainte de sécurité dans web.xml).
+ *
+ * @author leona
+ */
+@Path("photos")
+public class PhotoLieuResource {
+
+    private static final CacheControl CACHE_PRIVE = CacheControl.valueOf("private, max-age=86400");
+
+    @Inject
+    private PhotoLieuEntrepriseBean photoService;
+
+    @Inject
+    private LieuEntrepriseBean lieuService;
+
+    @Inject
+    private MiniatureCache miniatureCache;
+
+    @Context
+    private Request request;
+
+    @Context
+    private UriInfo uriInfo;
+
+    /**
+     * Corps brut de la requête (image/jpeg, image/png ou image/gif), nom
+     * d'origine facultatif dans l'en-tête X-Nom-Fichier.
+     */
+    @POST
+    @Path("lieu/{lieuId}")
+    @Consumes("image/*")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response envoyer(@PathParam("lieuId") int lieuId,
+            @HeaderParam(HttpHeaders.CONTENT_TYPE) String typeContenu,
+            @HeaderParam("X-Nom-Fichier") String nomFichier,
+            InputStream contenu) throws IOException {
+        if (lieuService.trouverLieuParId(lieuId) == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        // on retire les éventuels paramètres (charset...) du type annoncé
+        MediaType type = MediaType.valueOf(typeContenu);
+        try {
+            PhotoLieu photo = photoService.ajouterPhoto(lieuId, nomFichier,
+                    type.getType() + "/" + type.getSubtype(), contenu);
+            return Response.created(uriInfo.getBaseUriBuilder().path(PhotoLieuResource.class)
+                    .path(String.valueOf(photo.getId())).build())
+                    .entity(photo)
+                    .build();
+        } catch (PhotoInvalideException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).type(MediaType.TEXT_PLAIN).build();
+        }
+    }
+
+    @GET
+    @Path("lieu/{lieuId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<PhotoLieu> lister(@PathParam("lieuId") int lieuId) {
+        return photoService.listerPhotosDuLieu(lieuId);
+    }
+
+    @GET
+    @Path("{id: \\d+}")
+    public Response telecharger(@PathParam("id") Long id,
+            @HeaderParam("Range") String plage,
+            @HeaderParam("If-Range") String siPlage) throws IOException {
+        PhotoLieu photo = photoService.trouverPhotoParId(id);
+        if (photo == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        java.nio.file.Path fichier = photoService.fichierPhoto(photo);
+        Long taille = taille(fichier);
+        if (taille == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return servir(fichier, taille, photo.getTypeContenu(),
+                new EntityTag(photo.getEmpreinte()), plage, siPlage);
+    }
+
+    @GET
+    @Path("{id: \\d+}/miniature")
+    public Response miniature(@PathParam("id") Long id,
+            @QueryParam("largeur") @DefaultValue("160") int largeur,
+            @HeaderParam("Range") String plage,
+            @HeaderParam("If-Range") String siPlage) throws IOException {
+        PhotoLieu photo = photoService.trouverPhotoParId(id);
+        if (photo == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        int largeurBornee = Math.max(MiniatureCache.LARGEUR_MIN, Math.min(MiniatureCache.LARGEUR_MAX, largeur));
+        EntityTag etag = new EntityTag(photo.getEmpreinte() + "-" + largeurBornee);
+        // une miniature déjà connue du client n'est ni générée ni relue
+        Response.ResponseBuilder nonModifiee = request.evaluatePreconditions(etag);
+        if (nonModifiee != null) {
+            return nonModifiee.cacheControl(CACHE_PRIVE).build();
+        }
+        java.nio.file.Path fichier;
+        Long taille;
+        try {
+            fichier = miniatureCache.miniature(photo.getId(), photoService.fichierPhoto(photo), largeurBornee);
+            taille = taille(fichier);
+            if (taille == null) {
+                // évincée par une autre requête entre-temps : on la régénère une fois
+                fichier = miniatureCache.miniature(photo.getId(), photoService.fichierPhoto(photo), largeurBornee);
+                taille = taille(fichier);
+            }
+        } catch (NoSuchFileException e) {
+            // photo supprimée pendant la génération de sa miniature
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        if (taille == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return servir(fichier, taille, "image/jpeg", etag, plage, siPlage);
+    }
+
+    private Response servir(java.nio.file.Path fichier, long taille, String typeContenu, EntityTag etag,
+            String plage, String siPlage) {
+        Response.ResponseBuilder nonModifiee = request.evaluatePreconditions(etag);
+        if (nonModifiee != null) {
+            return nonModifiee.cacheControl(CACHE_PRIVE).build();
+        }
+        long debut = 0;
+        long fin = taille - 1;
+        boolean partiel = false;
+        // If-Range : on ne sert la plage que si le client possède encore la même version
+        if (plage != null && (siPlage == null || siPlage.equals(etag.toString()))) {
+            long[] bornes = lirePlage(plage, taille);
+            if (bornes == null) {
+                return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", "bytes */" + taille)
+                        .build();
+            }
+            if (bornes.length == 2) {
+                debut = bornes[0];
+                fin = bornes[1];
+                partiel = true;
+            }
+        }
+
+        long longueur = fin - debut + 1;
+        Response.ResponseBuilder reponse = partiel
+                ? Response.status(Response.Status.PARTIAL_CONTENT)
+                        .header("Content-Range", "bytes " + debut + "-" + fin + "/" + taille)
+                : Response.ok();
+        return reponse.entity(transferer(fichier, debut, longueur))
+                .type(typeContenu)
+                .tag(etag)
+                .cacheControl(CACHE_PRIVE)
+                .header("Accept-Ranges", "bytes")
+                .header(HttpHeaders.CONTENT_LENGTH, longueur)
+                .build();
+    }
+
+    /** Taille du fichier, ou null s'il n'existe plus. */
+    private static Long taille(java.nio.file.Path fichier) throws IOException {
+        try {
+            return Files.size(fichier);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copie la portion demandée du fichier vers la réponse avec
+     * {@link FileChannel#transferTo}, sans tampon intermédiaire côté
+     * application. Le canal n'est ouvert que pendant l'écriture de la réponse.
+     */
+    private static StreamingOutput transferer(java.nio.file.Path fichier, long debut, long longueur) {
+        return sortie -> {
+            try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+                WritableByteChannel cible = Channels.newChannel(sortie);
+                long position = debut;
+                long restant = longueur;
+                while (restant > 0) {
+                    long transferes = canal.transferTo(position, restant, cible);
+                    if (transferes <= 0) {
+                        break;
+                    }
+                    position += transferes;
+                    restant -= transferes;
+                }
+            }
+        };
+    }
+
+    /**
+     * Analyse un en-tête Range à plage unique. Retourne {début, fin}, un
+     * tableau vide si l'en-tête doit être ignoré (syntaxe inconnue ou plages
+     * multiples), ou null si la plage n'est pas satisfiable.
+     */
+    private static long[] lirePlage(String plage, long taille) {
+        if (!plage.startsWith("bytes=") || plage.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = plage.substring("bytes=".length()).trim();
+        int tiret = spec.indexOf('-');
+        if (tiret < 0) {
+            return new long[0];
+        }
+        try {
+            String gauche = spec.substring(0, tiret).trim();
+            String droite = spec.substring(tiret + 1).trim();
+            long debut;
+            long fin;
+            if (gauche.isEmpty()) {
+                // bytes=-N : les N derniers octets
+                long suffixe = Long.parseLong(droite);
+                if (suffixe <= 0 || taille == 0) {
+                    return null;
+                }
+                debut = Math.max(0, taille - suffixe);
+                fin = taille - 1;
+            } else {
+                debut = Long.parseLong(gauche);
+                long dernier = droite.isEmpty() ? Long.MAX_VALUE : Long.parseLong(droite);
+                if (debut < 0 || dernier < debut) {
+                    // plage syntaxiquement invalide : l'en-tête est ignoré
+                    return new long[0];
+                }
+                if (debut >= taille) {
+                    return null;
+                }
+                fin = Math.min(dernier, taille - 1);
+            }
+            return new long[]{debut, fin};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
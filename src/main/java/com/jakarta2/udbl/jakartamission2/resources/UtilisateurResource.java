@@ -0,0 +1,186 @@
+package com.jakarta2.udbl.jakartamission2.resources;
+
+import com.jakarta2.udbl.jakartamission2.business.UtilisateurEntrepriseBean;
+import com.jakarta2.udbl.jakartamission2.business.UtilisateurResume;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Annuaire des utilisateurs pour l'administration : pages par curseur et
+ * exports CSV/JSON en flux. Seules les projections (id, username, email)
+ * sont lues, jamais les mots de passe. Accès réservé au rôle admin
+ * (contrainte de sécurité dans web.xml).
+ *
+ * @author joelm
+ */
+@Path("utilisateurs")
+public class UtilisateurResource {
+
+    private static final int TAILLE_MAX = 200;
+    private static final int TAILLE_EXPORT = 500;
+
+    @Inject
+    private UtilisateurEntrepriseBean utilisateurService;
+
+    /**
+     * Une page d'utilisateurs. Filtrer par {@code username} ou {@code email}
+     * (préfixe) change l'ordre de tri ; {@code apres} reprend le curseur
+     * {@code suivant} de la page précédente.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response lister(@QueryParam("username") String username,
+            @QueryParam("email") String email,
+            @QueryParam("apres") String apres,
+            @QueryParam("taille") @DefaultValue("50") int taille) {
+        if (deuxFiltres(username, email)) {
+            return filtresIncompatibles();
+        }
+        int tailleBornee = Math.max(1, Math.min(TAILLE_MAX, taille));
+        List<UtilisateurResume> page;
+        try {
+            // un élément de plus que demandé pour savoir s'il existe une page suivante
+            page = page(username, email, apres, tailleBornee + 1);
+        } catch (NumberFormatException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Curseur invalide").type(MediaType.TEXT_PLAIN).build();
+        }
+        boolean aSuivante = page.size() > tailleBornee;
+        JsonArrayBuilder elements = Json.createArrayBuilder();
+        for (UtilisateurResume utilisateur : aSuivante ? page.subList(0, tailleBornee) : page) {
+            elements.add(Json.createObjectBuilder()
+                    .add("id", utilisateur.getId())
+                    .add("username", utilisateur.getUsername())
+                    .add("email", utilisateur.getEmail()));
+        }
+        JsonObjectBuilder reponse = Json.createObjectBuilder().add("utilisateurs", elements);
+        if (aSuivante) {
+            reponse.add("suivant", curseur(page.get(tailleBornee - 1), username, email));
+        } else {
+            reponse.addNull("suivant");
+        }
+        return Response.ok(reponse.build()).build();
+    }
+
+    @GET
+    @Path("export.csv")
+    @Produces("text/csv; charset=UTF-8")
+    public Response exporterCsv(@QueryParam("username") String username,
+            @QueryParam("email") String email) {
+        if (deuxFiltres(username, email)) {
+            return filtresIncompatibles();
+        }
+        StreamingOutput corps = sortie -> {
+            Writer ecrivain = new BufferedWriter(new OutputStreamWriter(sortie, StandardCharsets.UTF_8));
+            ecrivain.write("id,username,email\r\n");
+            String apres = null;
+            List<UtilisateurResume> page;
+            do {
+                page = page(username, email, apres, TAILLE_EXPORT);
+                for (UtilisateurResume utilisateur : page) {
+                    ecrivain.write(utilisateur.getId() + "," + champCsv(utilisateur.getUsername())
+                            + "," + champCsv(utilisateur.getEmail()) + "\r\n");
+                }
+                ecrivain.flush();
+                if (!page.isEmpty()) {
+                    apres = curseur(page.get(page.size() - 1), username, email);
+                }
+            } while (page.size() == TAILLE_EXPORT);
+        };
+        return Response.ok(corps)
+                .header("Content-Disposition", "attachment; filename=\"utilisateurs.csv\"")
+                .build();
+    }
+
+    @GET
+    @Path("export.json")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response exporterJson(@QueryParam("username") String username,
+            @QueryParam("email") String email) {
+        if (deuxFiltres(username, email)) {
+            return filtresIncompatibles();
+        }
+        StreamingOutput corps = sortie -> {
+            try (JsonGenerator generateur = Json.createGenerator(sortie)) {
+                generateur.writeStartArray();
+                String apres = null;
+                List<UtilisateurResume> page;
+                do {
+                    page = page(username, email, apres, TAILLE_EXPORT);
+                    for (UtilisateurResume utilisateur : page) {
+                        generateur.writeStartObject()
+                                .write("id", utilisateur.getId())
+                                .write("username", utilisateur.getUsername())
+                                .write("email", utilisateur.getEmail())
+                                .writeEnd();
+                    }
+                    generateur.flush();
+                    if (!page.isEmpty()) {
+                        apres = curseur(page.get(page.size() - 1), username, email);
+                    }
+                } while (page.size() == TAILLE_EXPORT);
+                generateur.writeEnd();
+            }
+        };
+        return Response.ok(corps)
+                .header("Content-Disposition", "attachment; filename=\"utilisateurs.json\"")
+                .build();
+    }
+
+    private static boolean deuxFiltres(String username, String email) {
+        return username != null && !username.isEmpty() && email != null && !email.isEmpty();
+    }
+
+    private static Response filtresIncompatibles() {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity("Filtrer par username ou par email, pas les deux")
+                .type(MediaType.TEXT_PLAIN)
+                .build();
+    }
+
+    private List<UtilisateurResume> page(String username, String email, String apres, int taille) {
+        if (username != null && !username.isEmpty()) {
+            return utilisateurService.rechercherParUsername(username, apres, taille);
+        }
+        if (email != null && !email.isEmpty()) {
+            return utilisateurService.rechercherParEmail(email, apres, taille);
+        }
+        return utilisateurService.listerUtilisateursParPage(apres != null ? Long.valueOf(apres) : null, taille);
+    }
+
+    private static String curseur(UtilisateurResume dernier, String username, String email) {
+        if (username != null && !username.isEmpty()) {
+            return dernier.getUsername();
+        }
+        if (email != null && !email.isEmpty()) {
+            return dernier.getEmail();
+        }
+        return String.valueOf(dernier.getId());
+    }
+
+    private static String champCsv(String valeur) {
+        // une valeur lue comme formule par un tableur est neutralisée par une apostrophe
+        if (!valeur.isEmpty() && "=+-@\t\r".indexOf(valeur.charAt(0)) >= 0) {
+            return "\"'" + valeur.replace("\"", "\"\"") + "\"";
+        }
+        if (valeur.indexOf(',') < 0 && valeur.indexOf('"') < 0 && valeur.indexOf('\n') < 0 && valeur.indexOf('\r') < 0) {
+            return valeur;
+        }
+        return "\"" + valeur.replace("\"", "\"\"") + "\"";
+    }
+}
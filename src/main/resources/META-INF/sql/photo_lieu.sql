@@ -0,0 +1,18 @@
+-- Table des métadonnées de photos (entité PhotoLieu), pour la base Derby
+-- de l'application. persistence.xml ne génère pas le schéma : à exécuter
+-- une fois sur jdbc/indonesiadb avant de déployer.
+CREATE TABLE photo_lieu (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    lieu_id INTEGER NOT NULL,
+    nomFichier VARCHAR(255) NOT NULL,
+    typeContenu VARCHAR(100) NOT NULL,
+    taille BIGINT NOT NULL,
+    cleStockage VARCHAR(64) NOT NULL,
+    empreinte VARCHAR(64) NOT NULL,
+    dateAjout TIMESTAMP NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uq_photo_lieu_cle UNIQUE (cleStockage),
+    CONSTRAINT fk_photo_lieu_lieu FOREIGN KEY (lieu_id) REFERENCES lieu (id)
+);
+
+CREATE INDEX idx_photo_lieu_lieu ON photo_lieu (lieu_id);